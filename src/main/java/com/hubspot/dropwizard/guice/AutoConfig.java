@@ -11,7 +11,17 @@ import io.dropwizard.servlets.tasks.Task;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.inject.Binding;
+import com.google.inject.ConfigurationException;
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.ProviderBinding;
+import com.google.inject.spi.ProviderKeyBinding;
 import com.sun.jersey.spi.inject.InjectableProvider;
 import org.reflections.Reflections;
 import org.reflections.scanners.SubTypesScanner;
@@ -25,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.Path;
 import javax.ws.rs.ext.Provider;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 public class AutoConfig {
@@ -65,12 +76,60 @@ public class AutoConfig {
 	private void addManaged(Environment environment, Injector injector) {
 		Set<Class<? extends Managed>> managedClasses = reflections
 				.getSubTypesOf(Managed.class);
-		for (Class<? extends Managed> managed : managedClasses) {
+		//Managed objects are stopped in reverse order, so register dependencies first
+		for (Class<? extends Managed> managed : inDependencyOrder(managedClasses, injector)) {
 			environment.lifecycle().manage(injector.getInstance(managed));
 			logger.info("Added managed: {}", managed);
 		}
 	}
 
+	private <C> List<Class<? extends C>> inDependencyOrder(Set<Class<? extends C>> classes, Injector injector) {
+		List<Class<? extends C>> ordered = Lists.newArrayList();
+		Set<Class<?>> visited = Sets.newHashSet();
+		for (Class<? extends C> cls : classes) {
+			visitDependencies(cls, classes, injector, visited, ordered);
+		}
+		return ordered;
+	}
+
+	private <C> void visitDependencies(Class<? extends C> cls, Set<Class<? extends C>> classes, Injector injector,
+									   Set<Class<?>> visited, List<Class<? extends C>> ordered) {
+		if (!visited.add(cls)) return;
+
+		Set<Key<?>> dependencies = Sets.newHashSet();
+		collectDependencies(Key.get(cls), injector, dependencies);
+		for (Class<? extends C> other : classes) {
+			if (other != cls && dependencies.contains(Key.get(other))) {
+				visitDependencies(other, classes, injector, visited, ordered);
+			}
+		}
+		ordered.add(cls);
+	}
+
+	private void collectDependencies(Key<?> key, Injector injector, Set<Key<?>> seen) {
+		if (!seen.add(key)) return;
+
+		Binding<?> binding;
+		try {
+			binding = injector.getBinding(key);
+		} catch (ConfigurationException e) {
+			return;
+		}
+
+		if (binding instanceof LinkedKeyBinding) {
+			collectDependencies(((LinkedKeyBinding<?>) binding).getLinkedKey(), injector, seen);
+		} else if (binding instanceof ProviderKeyBinding) {
+			collectDependencies(((ProviderKeyBinding<?>) binding).getProviderKey(), injector, seen);
+		} else if (binding instanceof ProviderBinding) {
+			collectDependencies(((ProviderBinding<?>) binding).getProvidedKey(), injector, seen);
+		}
+		if (binding instanceof HasDependencies) {
+			for (Dependency<?> dependency : ((HasDependencies) binding).getDependencies()) {
+				collectDependencies(dependency.getKey(), injector, seen);
+			}
+		}
+	}
+
 	private void addTasks(Environment environment, Injector injector) {
 		Set<Class<? extends Task>> taskClasses = reflections
 				.getSubTypesOf(Task.class);
@@ -0,0 +1,87 @@
+package com.hubspot.dropwizard.guice;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coalesces lookups made by different collaborators during a single request.
+ * Subclasses should be bound in {@link com.google.inject.servlet.RequestScoped}, which
+ * {@link GuiceContainer} maps to Jersey's per-request scope.
+ * Keys are queued with {@link #queue(Object)} and fetched with a single call to
+ * {@link #loadAll(Set)} the first time any result is needed.  Results are memoized
+ * for the lifetime of the loader, so each key is loaded at most once per request.
+ * Nothing is ever evicted: a loader bound as a singleton, or left unscoped and injected into a
+ * singleton, memoizes every result for the life of the application without bound.
+ */
+public abstract class BatchLoader<K, V> {
+    private final Set<K> pending = Sets.newLinkedHashSet();
+    private final Map<K, Optional<V>> loaded = Maps.newHashMap();
+
+    /**
+     * Load every key in a single downstream call.
+     * Keys missing from the returned map are remembered as absent.
+     */
+    protected abstract Map<K, V> loadAll(Set<K> keys);
+
+    public synchronized BatchLoader<K, V> queue(K key) {
+        Preconditions.checkNotNull(key);
+        if(!loaded.containsKey(key)) pending.add(key);
+        return this;
+    }
+
+    public synchronized BatchLoader<K, V> queueAll(Iterable<? extends K> keys) {
+        for(K key : keys) queue(key);
+        return this;
+    }
+
+    /**
+     * Returns the value for a key, dispatching every queued key along with it if it is not yet loaded.
+     */
+    public synchronized Optional<V> get(K key) {
+        queue(key);
+        dispatch();
+        return loaded.get(key);
+    }
+
+    /**
+     * Returns the values for the given keys, dispatching every queued key along with them.
+     * Absent values are omitted from the result.
+     */
+    public synchronized Map<K, V> getAll(Iterable<? extends K> keys) {
+        List<K> requested = Lists.<K>newArrayList(keys);
+        queueAll(requested);
+        dispatch();
+
+        Map<K, V> result = Maps.newLinkedHashMap();
+        for(K key : requested) {
+            Optional<V> value = loaded.get(key);
+            if(value.isPresent()) result.put(key, value.get());
+        }
+        return result;
+    }
+
+    /**
+     * Sends all queued keys downstream.  Called implicitly when a result is first needed.
+     */
+    public synchronized void dispatch() {
+        if(pending.isEmpty()) return;
+
+        Set<K> keys = ImmutableSet.copyOf(pending);
+        pending.clear();
+
+        Map<K, V> values = loadAll(keys);
+        if(values == null) values = Collections.emptyMap();
+        for(K key : keys) {
+            loaded.put(key, Optional.fromNullable(values.get(key)));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.hubspot.dropwizard.guice;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Apply to GET resource methods.
+ * Successful responses are serialized once and the bytes are served from memory until they expire.
+ * Concurrent misses for the same key compute the response only once.  Cached responses carry
+ * an ETag, and conditional requests that match it are answered with a 304.
+ * Headers set by the resource are replayed.
+ * To avoid serving one user's data to another, responses that set cookies or carry {@code Cache-Control: private},
+ * {@code no-store} or {@code no-cache} are not cached, and requests with an Authorization header bypass the cache
+ * unless Authorization is listed in {@link #varyByHeaders()}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheResponse {
+    long ttl() default 60;
+
+    TimeUnit ttlUnit() default TimeUnit.SECONDS;
+
+    /**
+     * Request headers whose values are part of the cache key, and are listed in the response's Vary header.
+     * Accept is added automatically when the method produces more than one media type.
+     */
+    String[] varyByHeaders() default {};
+
+    /**
+     * Query parameters whose values are part of the cache key.  The path is always part of the key.
+     */
+    String[] varyByQueryParams() default {};
+
+    long maxEntries() default 1000;
+
+    /**
+     * Bounds the cache by the total size of cached bodies instead of {@link #maxEntries()}, when positive.
+     */
+    long maxBytes() default 0;
+}
@@ -0,0 +1,125 @@
+package com.hubspot.dropwizard.guice;
+
+import com.google.common.base.Optional;
+import io.dropwizard.Application;
+import io.dropwizard.Configuration;
+import io.dropwizard.cli.EnvironmentCommand;
+import io.dropwizard.setup.Environment;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Enumeration;
+
+/**
+ * Must be used in conjunction with the GuiceBundle, and added to the bootstrap before the bundle.
+ * Boots the application the same way as the server command, including auto configuration, injector
+ * creation and {@link GuiceContainer} initialization, but never starts Jetty, binds ports, or starts
+ * managed objects.  The JVM then exits so it can write a class list or dynamic class data sharing archive,
+ * and the flags needed to use that archive are printed.
+ */
+public class ClassDataSharingCommand<T extends Configuration> extends EnvironmentCommand<T> implements GuiceCommand<T> {
+    private static final String DYNAMIC_ARCHIVE_FLAG = "-XX:ArchiveClassesAtExit=";
+    private static final String CLASS_LIST_FLAG = "-XX:DumpLoadedClassList=";
+
+    private GuiceBundle<T> init;
+
+    public ClassDataSharingCommand(Application<T> application) {
+        this(application, "cds-train", "Boots the application without serving requests to train a class data sharing archive");
+    }
+
+    protected ClassDataSharingCommand(Application<T> application, String name, String description) {
+        super(application, name, description);
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("--archive")
+                .dest("archive")
+                .setDefault("app.jsa")
+                .help("Archive file to suggest when the training run did not specify one");
+    }
+
+    @Override
+    public void setInit(GuiceBundle<T> init) {
+        this.init = init;
+    }
+
+    @Override
+    protected void run(Environment environment, Namespace namespace, T configuration) throws Exception {
+        if(init == null) throw new IllegalStateException("Injected Command run without a GuiceBundle. Was the application initialized correctly?");
+
+        //The bundle has already run as part of the environment setup; all that is left is the lazy servlet init.
+        init.setNamespace(namespace);
+        GuiceContainer container = init.getInjector().get().getInstance(GuiceContainer.class);
+        container.init(new TrainingServletConfig(environment.getApplicationContext().getServletContext()));
+        container.destroy();
+
+        printFlags(System.out, namespace.getString("archive"));
+        System.out.flush();
+
+        //Make sure stray non-daemon threads cannot keep the JVM from exiting and writing the archive
+        System.exit(0);
+    }
+
+    private void printFlags(PrintStream out, String defaultArchive) {
+        Optional<String> dynamicArchive = findFlag(DYNAMIC_ARCHIVE_FLAG);
+        Optional<String> classList = findFlag(CLASS_LIST_FLAG);
+
+        if(dynamicArchive.isPresent()) {
+            out.println("The dynamic archive will be written to " + dynamicArchive.get() + " on exit. Start the server with:");
+            out.println("  -XX:SharedArchiveFile=" + dynamicArchive.get());
+        } else if(classList.isPresent()) {
+            out.println("The class list will be written to " + classList.get() + ". Create the archive with:");
+            out.println("  java -Xshare:dump -XX:SharedClassListFile=" + classList.get()
+                    + " -XX:SharedArchiveFile=" + defaultArchive
+                    + " -cp " + System.getProperty("java.class.path"));
+            out.println("Then start the server with:");
+            out.println("  -XX:SharedArchiveFile=" + defaultArchive);
+        } else {
+            out.println("No archive flags were given. Rerun this command with one of:");
+            out.println("  " + DYNAMIC_ARCHIVE_FLAG + defaultArchive + "   (JDK 13+)");
+            out.println("  " + CLASS_LIST_FLAG + "classes.lst");
+        }
+    }
+
+    private static Optional<String> findFlag(String prefix) {
+        for(String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if(argument.startsWith(prefix)) return Optional.of(argument.substring(prefix.length()));
+        }
+        return Optional.absent();
+    }
+
+    private static class TrainingServletConfig implements ServletConfig {
+        private final ServletContext context;
+
+        TrainingServletConfig(ServletContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public String getServletName() {
+            return "jersey";
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return context;
+        }
+
+        @Override
+        public String getInitParameter(String name) {
+            return null;
+        }
+
+        @Override
+        public Enumeration<String> getInitParameterNames() {
+            return Collections.enumeration(Collections.<String>emptyList());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.hubspot.dropwizard.guice;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Apply to resource methods, or resource classes to cover all of their methods.
+ * Limits the number of concurrent requests dispatched to each method.  The limit grows
+ * additively while requests complete within {@link #latencyThresholdMillis()} and is cut
+ * multiplicatively by {@link #backoffRatio()} when they do not.  Requests over the limit are
+ * rejected immediately with a 503.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ConcurrencyLimit {
+    int initialLimit() default 20;
+
+    int minLimit() default 1;
+
+    int maxLimit() default 200;
+
+    long latencyThresholdMillis() default 1000;
+
+    double backoffRatio() default 0.9;
+}
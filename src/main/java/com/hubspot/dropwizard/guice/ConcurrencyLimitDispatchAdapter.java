@@ -0,0 +1,178 @@
+package com.hubspot.dropwizard.guice;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.spi.container.ResourceMethodDispatchAdapter;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Enforces {@link ConcurrencyLimit} on resource methods.
+ * Limiters are created once per resource class and method signature when Jersey builds its dispatchers.
+ */
+@Provider
+public class ConcurrencyLimitDispatchAdapter implements ResourceMethodDispatchAdapter {
+    private final MetricRegistry registry;
+    private final Map<String, AimdLimiter> limiters = Maps.newHashMap();
+
+    public ConcurrencyLimitDispatchAdapter(MetricRegistry registry) {
+        Preconditions.checkNotNull(registry);
+        this.registry = registry;
+    }
+
+    @Override
+    public ResourceMethodDispatchProvider adapt(final ResourceMethodDispatchProvider provider) {
+        return new ResourceMethodDispatchProvider() {
+            @Override
+            public RequestDispatcher create(AbstractResourceMethod resourceMethod) {
+                RequestDispatcher dispatcher = provider.create(resourceMethod);
+                if(dispatcher == null) return null;
+
+                Method method = resourceMethod.getMethod();
+                Class<?> resourceClass = resourceMethod.getResource().getResourceClass();
+                ConcurrencyLimit annotation = method.getAnnotation(ConcurrencyLimit.class);
+                if(annotation == null) annotation = resourceClass.getAnnotation(ConcurrencyLimit.class);
+                if(annotation == null) return dispatcher;
+
+                String base = metricName(resourceClass, method);
+                return new LimitedRequestDispatcher(dispatcher, limiterFor(base, annotation),
+                        registry.meter(name(base, "rejected")));
+            }
+        };
+    }
+
+    /**
+     * Overloaded methods, and methods inherited by several resource classes, each get their own name.
+     */
+    static String metricName(Class<?> resourceClass, Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        String[] names = new String[parameterTypes.length + 1];
+        names[0] = method.getName();
+        for(int i = 0; i < parameterTypes.length; i++) {
+            names[i + 1] = parameterTypes[i].getSimpleName();
+        }
+        return name(resourceClass, names);
+    }
+
+    //Jersey may build more than one dispatcher for a method, e.g. for sub-resources, so limiters are shared per name
+    private synchronized AimdLimiter limiterFor(String base, ConcurrencyLimit annotation) {
+        AimdLimiter existing = limiters.get(base);
+        if(existing != null) return existing;
+
+        final AimdLimiter limiter = new AimdLimiter(annotation);
+        registerGauge(name(base, "concurrency-limit"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return limiter.getLimit();
+            }
+        });
+        registerGauge(name(base, "in-flight"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return limiter.getInFlight();
+            }
+        });
+        limiters.put(base, limiter);
+        return limiter;
+    }
+
+    //A gauge left behind in a shared registry would report on a limiter that is no longer used
+    private void registerGauge(String name, Gauge<Integer> gauge) {
+        registry.remove(name);
+        registry.register(name, gauge);
+    }
+
+    private static class LimitedRequestDispatcher implements RequestDispatcher {
+        private final RequestDispatcher underlying;
+        private final AimdLimiter limiter;
+        private final Meter rejected;
+
+        LimitedRequestDispatcher(RequestDispatcher underlying, AimdLimiter limiter, Meter rejected) {
+            this.underlying = underlying;
+            this.limiter = limiter;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void dispatch(Object resource, HttpContext context) {
+            if(!limiter.tryAcquire()) {
+                rejected.mark();
+                throw new WebApplicationException(Response.Status.SERVICE_UNAVAILABLE);
+            }
+
+            final long start = System.nanoTime();
+            try {
+                underlying.dispatch(resource, context);
+            } finally {
+                limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Additive increase, multiplicative decrease on the latency of completed requests.
+     */
+    static class AimdLimiter {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final int minLimit;
+        private final int maxLimit;
+        private final long thresholdNanos;
+        private final double backoffRatio;
+        private volatile double limit;
+
+        AimdLimiter(ConcurrencyLimit annotation) {
+            Preconditions.checkArgument(annotation.minLimit() > 0, "minLimit must be positive");
+            Preconditions.checkArgument(annotation.minLimit() <= annotation.maxLimit(), "minLimit exceeds maxLimit");
+            Preconditions.checkArgument(annotation.backoffRatio() > 0 && annotation.backoffRatio() < 1,
+                    "backoffRatio must be between 0 and 1");
+            this.minLimit = annotation.minLimit();
+            this.maxLimit = annotation.maxLimit();
+            this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(annotation.latencyThresholdMillis());
+            this.backoffRatio = annotation.backoffRatio();
+            this.limit = Math.max(minLimit, Math.min(maxLimit, annotation.initialLimit()));
+        }
+
+        boolean tryAcquire() {
+            while(true) {
+                int current = inFlight.get();
+                if(current >= getLimit()) return false;
+                if(inFlight.compareAndSet(current, current + 1)) return true;
+            }
+        }
+
+        void release(long latencyNanos) {
+            int current = inFlight.getAndDecrement();
+            synchronized(this) {
+                if(latencyNanos > thresholdNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                } else if(current * 2 >= limit) {
+                    //Only grow while the limit is actually being used
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+        }
+
+        int getLimit() {
+            return (int) limit;
+        }
+
+        int getInFlight() {
+            return inFlight.get();
+        }
+    }
+}
@@ -150,7 +150,13 @@ public class DropwizardEnvironmentModule<T extends Configuration> extends Abstra
         return bootstrap.get();
     }
 
-	private class CustomConfigurationProvider implements Provider<T> {
+    /**
+     * Marks providers of the configuration and its elements, which return the same objects for the life of the application.
+     */
+    interface ConfigurationProvider {
+    }
+
+	private class CustomConfigurationProvider implements Provider<T>, ConfigurationProvider {
 		@Override
 		public T get() {
 			if (configuration == null || !configuration.isPresent()) {
@@ -160,7 +166,7 @@ public class DropwizardEnvironmentModule<T extends Configuration> extends Abstra
 		}
 	}
 
-    private class ConfigElementProvider<U> implements Provider<U> {
+    private class ConfigElementProvider<U> implements Provider<U>, ConfigurationProvider {
         private final Field[] path;
 
         public ConfigElementProvider(Class<T> configCls, String[] path) {
@@ -13,6 +13,7 @@ import io.dropwizard.ConfiguredBundle;
 import io.dropwizard.cli.Command;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
 import net.sourceforge.argparse4j.inf.Namespace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,11 +27,19 @@ public class GuiceBundle<T extends Configuration> implements ConfiguredBundle<T>
 
     final Logger logger = LoggerFactory.getLogger(GuiceBundle.class);
 
-    private final AutoConfig autoConfig;
+    private AutoConfig autoConfig;
     private final List<Module> modules;
     private final List<Module> initModules;
     private final List<Function<Injector, ServletContextListener>> contextListenerGenerators;
     private final String[] configurationPackages;
+    private final boolean methodMetrics;
+    private final Optional<Duration> drainReadinessDelay;
+    private final Optional<Duration> drainTimeout;
+    private final boolean releaseBootstrapState;
+    private final boolean injectorReport;
+    private final boolean resourceAccounting;
+    private final Optional<ScopeAdvisor> scopeAdvisor;
+    private boolean guiceFilter = true;
     private Injector initInjector;
     private Injector injector;
     private DropwizardEnvironmentModule dropwizardEnvironmentModule;
@@ -45,6 +54,13 @@ public class GuiceBundle<T extends Configuration> implements ConfiguredBundle<T>
         private List<Function<Injector, ServletContextListener>> contextListenerGenerators = Lists.newArrayList();
         private Optional<Class<T>> configurationClass = Optional.<Class<T>>absent();
         private String[] configurationPackages = new String[0];
+        private boolean methodMetrics = false;
+        private Optional<Duration> drainReadinessDelay = Optional.absent();
+        private Optional<Duration> drainTimeout = Optional.absent();
+        private boolean releaseBootstrapState = false;
+        private boolean injectorReport = false;
+        private boolean resourceAccounting = false;
+        private Optional<ScopeAdvisor> scopeAdvisor = Optional.absent();
 
         /**
          * Add a module to the bundle.
@@ -100,12 +116,73 @@ public class GuiceBundle<T extends Configuration> implements ConfiguredBundle<T>
             return this;
         }
 
+        /**
+         * Instrument methods annotated with {@link com.codahale.metrics.annotation.Timed},
+         * {@link com.codahale.metrics.annotation.Metered} and
+         * {@link com.codahale.metrics.annotation.ExceptionMetered} on any class built by the injector,
+         * not only on Jersey resources.
+         */
+        public Builder<T> enableMethodMetrics() {
+            methodMetrics = true;
+            return this;
+        }
+
+        /**
+         * On shutdown, report unhealthy and keep serving for the readiness delay, so load balancers
+         * can stop routing requests here.  Then wait up to the timeout for in-flight requests
+         * to finish before any managed objects are stopped.
+         */
+        public Builder<T> enableRequestDraining(Duration readinessDelay, Duration timeout) {
+            Preconditions.checkNotNull(readinessDelay);
+            Preconditions.checkNotNull(timeout);
+            drainReadinessDelay = Optional.of(readinessDelay);
+            drainTimeout = Optional.of(timeout);
+            return this;
+        }
+
+        /**
+         * Drop references to structures only needed while bootstrapping, such as the module list
+         * and the AutoConfig classpath scan, once the bundle has run.
+         */
+        public Builder<T> releaseBootstrapState() {
+            releaseBootstrapState = true;
+            return this;
+        }
+
+        /**
+         * Register the guice-injectors admin task, an inventory of bindings per injector and scope.
+         */
+        public Builder<T> enableInjectorReport() {
+            injectorReport = true;
+            return this;
+        }
+
+        /**
+         * Record thread CPU time, allocated bytes and Guice provisions for each request,
+         * as histograms keyed by resource class and method.
+         */
+        public Builder<T> enableResourceAccounting() {
+            resourceAccounting = true;
+            return this;
+        }
+
+        /**
+         * Count provisions of unscoped classes and look for resources rebuilt on every request
+         * that hold no request state.  Findings are logged at startup and reported by the
+         * guice-scope-advisor task.
+         * @param promoteStatelessResources serve unscoped resources verified as stateless as singletons
+         */
+        public Builder<T> enableScopeAdvisor(boolean promoteStatelessResources) {
+            scopeAdvisor = Optional.of(new ScopeAdvisor(promoteStatelessResources));
+            return this;
+        }
+
         public GuiceBundle<T> build() {
             return build(Stage.PRODUCTION);
         }
 
         public GuiceBundle<T> build(Stage s) {
-            return new GuiceBundle<T>(s, autoConfig, modules, initModules, contextListenerGenerators, configurationClass, configurationPackages);
+            return new GuiceBundle<T>(s, autoConfig, modules, initModules, contextListenerGenerators, configurationClass, configurationPackages, methodMetrics, drainReadinessDelay, drainTimeout, releaseBootstrapState, injectorReport, resourceAccounting, scopeAdvisor);
         }
 
     }
@@ -120,7 +197,14 @@ public class GuiceBundle<T extends Configuration> implements ConfiguredBundle<T>
                         List<Module> initModules,
                         List<Function<Injector, ServletContextListener>> contextListenerGenerators,
                         Optional<Class<T>> configurationClass,
-                        String[] configurationPackages) {
+                        String[] configurationPackages,
+                        boolean methodMetrics,
+                        Optional<Duration> drainReadinessDelay,
+                        Optional<Duration> drainTimeout,
+                        boolean releaseBootstrapState,
+                        boolean injectorReport,
+                        boolean resourceAccounting,
+                        Optional<ScopeAdvisor> scopeAdvisor) {
         Preconditions.checkNotNull(modules);
         Preconditions.checkArgument(!modules.isEmpty());
         Preconditions.checkNotNull(contextListenerGenerators);
@@ -133,10 +217,25 @@ public class GuiceBundle<T extends Configuration> implements ConfiguredBundle<T>
         this.configurationClass = configurationClass;
         this.configurationPackages = configurationPackages;
         this.stage = stage;
+        this.methodMetrics = methodMetrics;
+        this.drainReadinessDelay = drainReadinessDelay;
+        this.drainTimeout = drainTimeout;
+        this.releaseBootstrapState = releaseBootstrapState;
+        this.injectorReport = injectorReport;
+        this.resourceAccounting = resourceAccounting;
+        this.scopeAdvisor = scopeAdvisor;
     }
 
     @Override
     public void initialize(Bootstrap<?> bootstrap) {
+        //Installed in the root injector so the type listener also sees just-in-time bindings.
+        //The bootstrap registry is the one later exposed as environment.metrics().
+        if (methodMetrics) {
+            initModules.add(new MethodMetricsModule(bootstrap.getMetricRegistry()));
+        }
+        if (resourceAccounting || scopeAdvisor.isPresent()) {
+            initModules.add(new ProvisionCountingModule(resourceAccounting, scopeAdvisor));
+        }
         initInjector = Guice.createInjector(this.stage, this.initModules);
         if (autoConfig != null) {
             autoConfig.initialize(bootstrap, initInjector);
@@ -174,19 +273,59 @@ public class GuiceBundle<T extends Configuration> implements ConfiguredBundle<T>
                     return container.get();
                 }
             });
-            environment.servlets().addFilter("Guice Filter", GuiceFilter.class)
-                    .addMappingForUrlPatterns(null, false, environment.getApplicationContext().getContextPath() + "*");
+            if (guiceFilter) {
+                environment.servlets().addFilter("Guice Filter", GuiceFilter.class)
+                        .addMappingForUrlPatterns(null, false, environment.getApplicationContext().getContextPath() + "*");
+            }
+            environment.jersey().register(new ConcurrencyLimitDispatchAdapter(environment.metrics()));
+            environment.jersey().register(new ResponseCacheDispatchAdapter());
+            if (resourceAccounting) {
+                environment.jersey().register(new ResourceAccountingDispatchAdapter(environment.metrics()));
+            }
+
+            if (drainTimeout.isPresent()) {
+                RequestDrainer drainer = new RequestDrainer(container.get(), drainReadinessDelay.get(), drainTimeout.get());
+                environment.lifecycle().addLifeCycleListener(drainer);
+                environment.healthChecks().register("guice-request-drain", drainer.getHealthCheck());
+            }
 
             for (Function<Injector, ServletContextListener> generator : contextListenerGenerators) {
                 environment.servlets().addServletListeners(generator.apply(injector));
             }
 
+            if (injectorReport) {
+                environment.admin().addTask(new InjectorReportTask(getInjector()));
+            }
+            if (scopeAdvisor.isPresent()) {
+                environment.admin().addTask(new ScopeAdvisorTask(scopeAdvisor.get(), getInjector()));
+            }
+
             if (autoConfig != null) {
                 autoConfig.run(environment, injector);
             }
+
+            if (releaseBootstrapState) {
+                releaseBootstrapState();
+            }
         }
     }
 
+    /**
+     * Test only: serve Jersey without {@link GuiceFilter}, to measure what the filter costs.
+     * Request and session scoped bindings cannot be used without it.
+     */
+    void disableGuiceFilter() {
+        guiceFilter = false;
+    }
+
+    private void releaseBootstrapState() {
+        //The injectors hold everything they still need; these are only used to build them.
+        modules.clear();
+        initModules.clear();
+        autoConfig = null;
+        logger.info("Released GuiceBundle bootstrap state");
+    }
+
     void setNamespace(Namespace namespace) {
         dropwizardEnvironmentModule.setNamespace(namespace);
     }
@@ -205,6 +344,8 @@ public class GuiceBundle<T extends Configuration> implements ConfiguredBundle<T>
         if(environment != null) {
             container = new GuiceContainer();
             container.setResourceConfig(environment.jersey().getResourceConfig());
+            container.setResourceAccounting(resourceAccounting);
+            container.setScopeAdvisor(scopeAdvisor.orNull());
 
             jerseyContainerModule = new JerseyContainerModule(container);
         }
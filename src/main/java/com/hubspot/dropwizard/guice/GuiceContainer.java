@@ -1,8 +1,12 @@
 package com.hubspot.dropwizard.guice;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.ws.rs.core.Application;
 
 import com.google.inject.Inject;
@@ -12,7 +16,10 @@ import com.google.inject.Singleton;
 import com.google.inject.servlet.ServletScopes;
 import com.sun.jersey.api.core.DefaultResourceConfig;
 import com.sun.jersey.api.core.ResourceConfig;
+import com.sun.jersey.core.spi.component.ComponentContext;
 import com.sun.jersey.core.spi.component.ComponentScope;
+import com.sun.jersey.core.spi.component.ioc.IoCComponentProvider;
+import com.sun.jersey.core.spi.component.ioc.IoCManagedComponentProvider;
 import com.sun.jersey.guice.spi.container.GuiceComponentProviderFactory;
 import com.sun.jersey.spi.container.WebApplication;
 import com.sun.jersey.spi.container.servlet.ServletContainer;
@@ -30,6 +37,12 @@ public class GuiceContainer extends ServletContainer {
     
     private ResourceConfig resourceConfig = new DefaultResourceConfig();
 
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    private boolean resourceAccounting = false;
+
+    private ScopeAdvisor scopeAdvisor;
+
     public class ServletGuiceComponentProviderFactory extends GuiceComponentProviderFactory {
         public ServletGuiceComponentProviderFactory(ResourceConfig config, Injector injector) {
             super(config, injector);
@@ -42,6 +55,29 @@ public class GuiceContainer extends ServletContainer {
             m.put(ServletScopes.REQUEST, ComponentScope.PerRequest);
             return m;
         }
+
+        @Override
+        public IoCComponentProvider getComponentProvider(ComponentContext cc, final Class<?> clazz) {
+            if (scopeAdvisor != null && scopeAdvisor.shouldPromote(injector, clazz)) {
+                return new IoCManagedComponentProvider() {
+                    @Override
+                    public ComponentScope getScope() {
+                        return ComponentScope.Singleton;
+                    }
+
+                    @Override
+                    public Object getInjectableInstance(Object o) {
+                        return o;
+                    }
+
+                    @Override
+                    public Object getInstance() {
+                        return injector.getInstance(clazz);
+                    }
+                };
+            }
+            return super.getComponentProvider(cc, clazz);
+        }
     }
 
     public GuiceContainer() {
@@ -59,6 +95,20 @@ public class GuiceContainer extends ServletContainer {
 	    this.resourceConfig = resourceConfig;
     }
 
+    /**
+     * Consult the advisor as resources are set up, possibly serving them as singletons.
+     */
+    public void setScopeAdvisor(ScopeAdvisor scopeAdvisor) {
+        this.scopeAdvisor = scopeAdvisor;
+    }
+
+    /**
+     * Record per-request CPU time, allocations and Guice provisions.  See {@link ResourceAccounting}.
+     */
+    public void setResourceAccounting(boolean resourceAccounting) {
+        this.resourceAccounting = resourceAccounting;
+    }
+
     @Override
     protected ResourceConfig getDefaultResourceConfig(Map<String, Object> props, WebConfig webConfig) throws ServletException {
     	return resourceConfig;
@@ -70,7 +120,26 @@ public class GuiceContainer extends ServletContainer {
         webapp.initiate(config, new ServletGuiceComponentProviderFactory(config, injector));
     }
 
+    @Override
+    public void service(ServletRequest request, ServletResponse response) throws ServletException, IOException {
+        inFlightRequests.incrementAndGet();
+        if (resourceAccounting) ResourceAccounting.begin();
+        try {
+            super.service(request, response);
+        } finally {
+            if (resourceAccounting) ResourceAccounting.end();
+            inFlightRequests.decrementAndGet();
+        }
+    }
+
     public WebApplication getWebApplication() {
         return webapp;
     }
-}
\ No newline at end of file
+
+    /**
+     * Number of requests currently being served by this container.
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+}
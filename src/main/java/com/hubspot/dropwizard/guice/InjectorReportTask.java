@@ -0,0 +1,80 @@
+package com.hubspot.dropwizard.guice;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Maps;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.spi.BindingScopingVisitor;
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.util.Map;
+
+/**
+ * Admin task giving a binding inventory of the injector hierarchy built by the {@link GuiceBundle}.
+ * Reports the number of bindings held by each injector, including just-in-time bindings such as
+ * auto configured resources, broken down by scope.  Counts only; no memory sizes are measured.
+ * Pass {@code bindings=true} to list every binding.
+ */
+public class InjectorReportTask extends Task {
+    static final BindingScopingVisitor<String> SCOPE_NAME = new BindingScopingVisitor<String>() {
+        @Override
+        public String visitEagerSingleton() {
+            return "eager singleton";
+        }
+
+        @Override
+        public String visitScope(Scope scope) {
+            return scope.toString();
+        }
+
+        @Override
+        public String visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+            return "@" + scopeAnnotation.getSimpleName();
+        }
+
+        @Override
+        public String visitNoScoping() {
+            return "unscoped";
+        }
+    };
+
+    private final Provider<Injector> injector;
+
+    public InjectorReportTask(Provider<Injector> injector) {
+        super("guice-injectors");
+        this.injector = injector;
+    }
+
+    @Override
+    public void execute(ImmutableMultimap<String, String> parameters, PrintWriter output) throws Exception {
+        boolean listBindings = parameters.get("bindings").contains("true");
+
+        int depth = 0;
+        for(Injector current = injector.get(); current != null; current = current.getParent()) {
+            Map<Key<?>, Binding<?>> bindings = current.getAllBindings();
+            output.printf("Injector %d: %d bindings%n", depth++, bindings.size());
+
+            Map<String, Integer> scopes = Maps.newTreeMap();
+            for(Binding<?> binding : bindings.values()) {
+                String scope = binding.acceptScopingVisitor(SCOPE_NAME);
+                Integer count = scopes.get(scope);
+                scopes.put(scope, count == null ? 1 : count + 1);
+            }
+            for(Map.Entry<String, Integer> scope : scopes.entrySet()) {
+                output.printf("  %s: %d%n", scope.getKey(), scope.getValue());
+            }
+
+            if(listBindings) {
+                for(Binding<?> binding : bindings.values()) {
+                    output.printf("    %s [%s]%n", binding.getKey(), binding.acceptScopingVisitor(SCOPE_NAME));
+                }
+            }
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,174 @@
+package com.hubspot.dropwizard.guice;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Metered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.common.base.Preconditions;
+import com.google.inject.AbstractModule;
+import com.google.inject.TypeLiteral;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.spi.TypeEncounter;
+import com.google.inject.spi.TypeListener;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Installs method interceptors for {@link Timed}, {@link Metered} and {@link ExceptionMetered}
+ * on classes constructed by Guice.
+ * Metrics are looked up once per method when the type is first encountered, not on each call.
+ * Jersey resources, including sub-resources without a class level {@link Path}, are skipped,
+ * as Dropwizard already instruments resource methods.
+ */
+public class MethodMetricsModule extends AbstractModule {
+    private final MetricRegistry registry;
+
+    public MethodMetricsModule(MetricRegistry registry) {
+        Preconditions.checkNotNull(registry);
+        this.registry = registry;
+    }
+
+    @Override
+    protected void configure() {
+        bindListener(Matchers.any(), new MetricsTypeListener(registry));
+    }
+
+    private static class MetricsTypeListener implements TypeListener {
+        private final MetricRegistry registry;
+
+        MetricsTypeListener(MetricRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public <I> void hear(TypeLiteral<I> type, TypeEncounter<I> encounter) {
+            Class<?> klass = type.getRawType();
+            if(isJerseyResource(klass)) return;
+
+            for(Class<?> cls = klass; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+                for(Method method : cls.getDeclaredMethods()) {
+                    if(!isInterceptable(method)) continue;
+
+                    Timed timed = method.getAnnotation(Timed.class);
+                    if(timed != null) {
+                        Timer timer = registry.timer(chooseName(timed.name(), timed.absolute(), method));
+                        encounter.bindInterceptor(Matchers.only(method), new TimedInterceptor(timer));
+                    }
+
+                    Metered metered = method.getAnnotation(Metered.class);
+                    if(metered != null) {
+                        Meter meter = registry.meter(chooseName(metered.name(), metered.absolute(), method));
+                        encounter.bindInterceptor(Matchers.only(method), new MeteredInterceptor(meter));
+                    }
+
+                    ExceptionMetered exceptionMetered = method.getAnnotation(ExceptionMetered.class);
+                    if(exceptionMetered != null) {
+                        Meter meter = registry.meter(chooseName(exceptionMetered.name(), exceptionMetered.absolute(),
+                                method, ExceptionMetered.DEFAULT_NAME_SUFFIX));
+                        encounter.bindInterceptor(Matchers.only(method),
+                                new ExceptionMeteredInterceptor(meter, exceptionMetered.cause()));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Root resources carry a class level {@link Path}, but sub-resources returned from locators
+         * are only recognizable by their annotated methods.  Dropwizard instruments both.
+         */
+        private static boolean isJerseyResource(Class<?> klass) {
+            for(Class<?> cls = klass; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+                if(cls.isAnnotationPresent(Path.class)) return true;
+                for(Method method : cls.getDeclaredMethods()) {
+                    if(method.isAnnotationPresent(Path.class)) return true;
+                    for(Annotation annotation : method.getAnnotations()) {
+                        if(annotation.annotationType().isAnnotationPresent(HttpMethod.class)) return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static boolean isInterceptable(Method method) {
+            int modifiers = method.getModifiers();
+            return !method.isSynthetic()
+                    && !method.isBridge()
+                    && !Modifier.isStatic(modifiers)
+                    && !Modifier.isPrivate(modifiers)
+                    && !Modifier.isFinal(modifiers);
+        }
+
+        //Mirrors the naming used by Dropwizard's instrumented resource methods
+        private static String chooseName(String explicitName, boolean absolute, Method method, String... suffixes) {
+            if(explicitName != null && !explicitName.isEmpty()) {
+                if(absolute) return explicitName;
+                return name(method.getDeclaringClass(), explicitName);
+            }
+            return name(name(method.getDeclaringClass(), method.getName()), suffixes);
+        }
+    }
+
+    private static class TimedInterceptor implements MethodInterceptor {
+        private final Timer timer;
+
+        TimedInterceptor(Timer timer) {
+            this.timer = timer;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            final Timer.Context context = timer.time();
+            try {
+                return invocation.proceed();
+            } finally {
+                context.stop();
+            }
+        }
+    }
+
+    private static class MeteredInterceptor implements MethodInterceptor {
+        private final Meter meter;
+
+        MeteredInterceptor(Meter meter) {
+            this.meter = meter;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            meter.mark();
+            return invocation.proceed();
+        }
+    }
+
+    private static class ExceptionMeteredInterceptor implements MethodInterceptor {
+        private final Meter meter;
+        private final Class<? extends Throwable> exceptionClass;
+
+        ExceptionMeteredInterceptor(Meter meter, Class<? extends Throwable> exceptionClass) {
+            this.meter = meter;
+            this.exceptionClass = exceptionClass;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            try {
+                return invocation.proceed();
+            } catch(Throwable t) {
+                if(exceptionClass.isAssignableFrom(t.getClass())) {
+                    meter.mark();
+                }
+                throw t;
+            }
+        }
+    }
+}
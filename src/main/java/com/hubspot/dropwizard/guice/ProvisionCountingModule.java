@@ -0,0 +1,43 @@
+package com.hubspot.dropwizard.guice;
+
+import com.google.common.base.Optional;
+import com.google.inject.AbstractModule;
+import com.google.inject.TypeLiteral;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.spi.InjectionListener;
+import com.google.inject.spi.TypeEncounter;
+import com.google.inject.spi.TypeListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts instances constructed by Guice, towards the current {@link ResourceAccounting} sample
+ * and the {@link ScopeAdvisor}'s per-class counters.
+ * Instances returned from providers are not seen, as Guice 3 has no provision listeners.
+ */
+class ProvisionCountingModule extends AbstractModule {
+    private final boolean resourceAccounting;
+    private final Optional<ScopeAdvisor> scopeAdvisor;
+
+    ProvisionCountingModule(boolean resourceAccounting, Optional<ScopeAdvisor> scopeAdvisor) {
+        this.resourceAccounting = resourceAccounting;
+        this.scopeAdvisor = scopeAdvisor;
+    }
+
+    @Override
+    protected void configure() {
+        bindListener(Matchers.any(), new TypeListener() {
+            @Override
+            public <I> void hear(TypeLiteral<I> type, TypeEncounter<I> encounter) {
+                final AtomicLong counter = scopeAdvisor.isPresent() ? scopeAdvisor.get().counterFor(type.getRawType()) : null;
+                encounter.register(new InjectionListener<I>() {
+                    @Override
+                    public void afterInjection(I injectee) {
+                        if(resourceAccounting) ResourceAccounting.countProvision();
+                        if(counter != null) counter.incrementAndGet();
+                    }
+                });
+            }
+        });
+    }
+}
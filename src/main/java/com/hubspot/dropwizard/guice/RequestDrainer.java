@@ -0,0 +1,80 @@
+package com.hubspot.dropwizard.guice;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.google.common.base.Preconditions;
+import io.dropwizard.util.Duration;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds server shutdown until the {@link GuiceContainer} has finished its in-flight requests,
+ * or the timeout has passed.  Listens to the server lifecycle, so it runs before any
+ * {@link io.dropwizard.lifecycle.Managed} objects are stopped.
+ * Once draining starts, {@link #getHealthCheck()} reports unhealthy.  Connectors stay open for the
+ * readiness delay so load balancers can notice and stop routing here, then in-flight requests are drained.
+ * Neither happens when the server is stopped without having started, e.g. after a failed startup.
+ */
+public class RequestDrainer extends AbstractLifeCycle.AbstractLifeCycleListener {
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    final Logger logger = LoggerFactory.getLogger(RequestDrainer.class);
+
+    private final GuiceContainer container;
+    private final Duration readinessDelay;
+    private final Duration timeout;
+    private volatile boolean started = false;
+    private volatile boolean draining = false;
+
+    public RequestDrainer(GuiceContainer container, Duration readinessDelay, Duration timeout) {
+        Preconditions.checkNotNull(container);
+        Preconditions.checkNotNull(readinessDelay);
+        Preconditions.checkNotNull(timeout);
+        this.container = container;
+        this.readinessDelay = readinessDelay;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void lifeCycleStarted(LifeCycle event) {
+        started = true;
+    }
+
+    @Override
+    public void lifeCycleStopping(LifeCycle event) {
+        draining = true;
+        //Nothing was routed here, so a failed startup should exit right away
+        if(!started) return;
+
+        try {
+            //Requests keep arriving until the load balancer sees the failing health check
+            logger.info("Failing health check for {} before draining requests", readinessDelay);
+            Thread.sleep(readinessDelay.toMilliseconds());
+
+            long deadline = System.currentTimeMillis() + timeout.toMilliseconds();
+            logger.info("Draining {} in-flight requests", container.getInFlightRequests());
+            while(container.getInFlightRequests() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int remaining = container.getInFlightRequests();
+        if(remaining > 0) logger.warn("Shutting down with {} requests still in flight after {}", remaining, timeout);
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public HealthCheck getHealthCheck() {
+        return new HealthCheck() {
+            @Override
+            protected Result check() throws Exception {
+                return draining ? Result.unhealthy("Draining requests for shutdown") : Result.healthy();
+            }
+        };
+    }
+}
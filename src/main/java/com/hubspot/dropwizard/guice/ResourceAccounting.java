@@ -0,0 +1,84 @@
+package com.hubspot.dropwizard.guice;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Per-request accounting of thread CPU time, allocated bytes and Guice provisions.
+ * {@link GuiceContainer} opens a sample for each request, {@link ResourceAccountingDispatchAdapter}
+ * attributes it to the dispatched resource method, and the sample is recorded once the response is written.
+ * Requests that never reach a resource method are not recorded.
+ */
+public class ResourceAccounting {
+    private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<Sample>();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private ResourceAccounting() {}
+
+    static void begin() {
+        CURRENT.set(new Sample());
+    }
+
+    static void end() {
+        Sample sample = CURRENT.get();
+        CURRENT.remove();
+        if(sample != null && sample.histograms != null) sample.record();
+    }
+
+    static void attribute(Histograms histograms) {
+        Sample sample = CURRENT.get();
+        if(sample != null) sample.histograms = histograms;
+    }
+
+    /**
+     * Called for each instance Guice provisions.  Only counted on threads serving a request.
+     */
+    static void countProvision() {
+        Sample sample = CURRENT.get();
+        if(sample != null) sample.provisions++;
+    }
+
+    private static long currentCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long currentAllocatedBytes() {
+        if(THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static class Sample {
+        private final long cpuTime = currentCpuTime();
+        private final long allocatedBytes = currentAllocatedBytes();
+        private long provisions = 0;
+        private Histograms histograms;
+
+        void record() {
+            if(cpuTime >= 0) histograms.cpuNanos.update(currentCpuTime() - cpuTime);
+            if(allocatedBytes >= 0) histograms.allocatedBytes.update(currentAllocatedBytes() - allocatedBytes);
+            histograms.provisions.update(provisions);
+        }
+    }
+
+    static class Histograms {
+        private final Histogram cpuNanos;
+        private final Histogram allocatedBytes;
+        private final Histogram provisions;
+
+        Histograms(MetricRegistry registry, String base) {
+            this.cpuNanos = registry.histogram(name(base, "cpu-nanos"));
+            this.allocatedBytes = registry.histogram(name(base, "allocated-bytes"));
+            this.provisions = registry.histogram(name(base, "provisions"));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.hubspot.dropwizard.guice;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Preconditions;
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.spi.container.ResourceMethodDispatchAdapter;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Attributes the current {@link ResourceAccounting} sample to the dispatched resource method.
+ * Histograms are looked up once per method when Jersey builds its dispatchers.
+ */
+@Provider
+public class ResourceAccountingDispatchAdapter implements ResourceMethodDispatchAdapter {
+    private final MetricRegistry registry;
+
+    public ResourceAccountingDispatchAdapter(MetricRegistry registry) {
+        Preconditions.checkNotNull(registry);
+        this.registry = registry;
+    }
+
+    @Override
+    public ResourceMethodDispatchProvider adapt(final ResourceMethodDispatchProvider provider) {
+        return new ResourceMethodDispatchProvider() {
+            @Override
+            public RequestDispatcher create(AbstractResourceMethod resourceMethod) {
+                final RequestDispatcher dispatcher = provider.create(resourceMethod);
+                if(dispatcher == null) return null;
+
+                //Named like the concurrency limits, so overloaded methods are not merged
+                final ResourceAccounting.Histograms histograms = new ResourceAccounting.Histograms(registry,
+                        ConcurrencyLimitDispatchAdapter.metricName(resourceMethod.getResource().getResourceClass(), resourceMethod.getMethod()));
+                return new RequestDispatcher() {
+                    @Override
+                    public void dispatch(Object resource, HttpContext context) {
+                        ResourceAccounting.attribute(histograms);
+                        dispatcher.dispatch(resource, context);
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,300 @@
+package com.hubspot.dropwizard.guice;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.api.core.HttpRequestContext;
+import com.sun.jersey.api.core.HttpResponseContext;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.spi.container.ResourceMethodDispatchAdapter;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.Throwables.propagate;
+
+/**
+ * Serves resource methods annotated with {@link CacheResponse} from an in-memory cache of serialized responses.
+ * Each method gets its own bounded cache when Jersey builds its dispatchers.
+ * Headers set by the resource are cached and replayed.  Responses that set cookies or are marked private, no-store
+ * or no-cache are passed through uncached, as are requests with credentials unless they are part of the key.
+ * Methods producing more than one media type are also cached by the request's Accept header, and every cached
+ * response carries a Vary header naming the request headers it was cached by.
+ */
+@Provider
+public class ResponseCacheDispatchAdapter implements ResourceMethodDispatchAdapter {
+    private static final Splitter HEADER_VALUES = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    @Context
+    private Providers providers;
+
+    public ResponseCacheDispatchAdapter() {
+    }
+
+    ResponseCacheDispatchAdapter(Providers providers) {
+        this.providers = providers;
+    }
+
+    @Override
+    public ResourceMethodDispatchProvider adapt(final ResourceMethodDispatchProvider provider) {
+        return new ResourceMethodDispatchProvider() {
+            @Override
+            public RequestDispatcher create(AbstractResourceMethod resourceMethod) {
+                RequestDispatcher dispatcher = provider.create(resourceMethod);
+                if(dispatcher == null) return null;
+
+                CacheResponse annotation = resourceMethod.getMethod().getAnnotation(CacheResponse.class);
+                if(annotation == null || !HttpMethod.GET.equals(resourceMethod.getHttpMethod())) return dispatcher;
+
+                return new CachingRequestDispatcher(dispatcher, resourceMethod, annotation);
+            }
+        };
+    }
+
+    private static class CachedResponse {
+        private final byte[] body;
+        private final MediaType mediaType;
+        private final EntityTag tag;
+        private final ListMultimap<String, Object> headers;
+
+        /**
+         * @param tag the resource's own entity tag, or null to tag by content
+         */
+        CachedResponse(byte[] body, MediaType mediaType, EntityTag tag, ListMultimap<String, Object> headers) {
+            this.body = body;
+            this.mediaType = mediaType;
+            this.tag = tag != null ? tag : new EntityTag(Hashing.md5().hashBytes(body).toString());
+            this.headers = headers;
+        }
+    }
+
+    /**
+     * Thrown from the cache loader when the response should be passed through rather than cached.
+     */
+    private static class NotCacheableException extends Exception {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private class CachingRequestDispatcher implements RequestDispatcher {
+        private final RequestDispatcher underlying;
+        private final AbstractResourceMethod resourceMethod;
+        private final CacheResponse annotation;
+        private final boolean negotiated;
+        private final boolean varyByAuthorization;
+        private final List<String> vary;
+        private final Cache<List<Object>, CachedResponse> cache;
+
+        CachingRequestDispatcher(RequestDispatcher underlying, AbstractResourceMethod resourceMethod, CacheResponse annotation) {
+            this.underlying = underlying;
+            this.resourceMethod = resourceMethod;
+            this.annotation = annotation;
+
+            //The same path can render differently for each Accept header when there is more than one type to choose from
+            this.negotiated = resourceMethod.getSupportedOutputTypes().size() > 1;
+            List<String> vary = Lists.newArrayList(annotation.varyByHeaders());
+            if(negotiated) vary.add(HttpHeaders.ACCEPT);
+            boolean varyByAuthorization = false;
+            for(String header : vary) {
+                if(header.equalsIgnoreCase(HttpHeaders.AUTHORIZATION)) varyByAuthorization = true;
+            }
+            this.varyByAuthorization = varyByAuthorization;
+            this.vary = ImmutableList.copyOf(vary);
+
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                    .expireAfterWrite(annotation.ttl(), annotation.ttlUnit());
+            if(annotation.maxBytes() > 0) {
+                builder.maximumWeight(annotation.maxBytes()).weigher(new Weigher<List<Object>, CachedResponse>() {
+                    @Override
+                    public int weigh(List<Object> key, CachedResponse value) {
+                        return value.body.length;
+                    }
+                });
+            } else {
+                builder.maximumSize(annotation.maxEntries());
+            }
+            this.cache = builder.build();
+        }
+
+        @Override
+        public void dispatch(final Object resource, final HttpContext context) {
+            //The key would not tell callers apart, so one caller's response could be served to another
+            List<String> credentials = context.getRequest().getRequestHeader(HttpHeaders.AUTHORIZATION);
+            if(!varyByAuthorization && credentials != null && !credentials.isEmpty()) {
+                underlying.dispatch(resource, context);
+                return;
+            }
+
+            final boolean[] loaded = {false};
+            CachedResponse cached;
+            try {
+                cached = cache.get(keyFor(context.getRequest()), new Callable<CachedResponse>() {
+                    @Override
+                    public CachedResponse call() throws Exception {
+                        loaded[0] = true;
+                        return render(resource, context);
+                    }
+                });
+            } catch(ExecutionException e) {
+                if(!loaded[0]) {
+                    underlying.dispatch(resource, context);
+                    return;
+                }
+                if(e.getCause() instanceof NotCacheableException) return;
+                throw propagate(e.getCause());
+            } catch(UncheckedExecutionException e) {
+                //Another request's failure is not ours to report
+                if(!loaded[0]) {
+                    underlying.dispatch(resource, context);
+                    return;
+                }
+                throw propagate(e.getCause());
+            }
+
+            Response.ResponseBuilder builder = context.getRequest().evaluatePreconditions(cached.tag);
+            if(builder == null) builder = Response.ok(cached.body, cached.mediaType);
+            for(Map.Entry<String, Object> header : cached.headers.entries()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+            context.getResponse().setResponse(builder.tag(cached.tag).build());
+        }
+
+        private List<Object> keyFor(HttpRequestContext request) {
+            List<Object> key = Lists.newArrayList();
+            key.add(request.getPath());
+            for(String param : annotation.varyByQueryParams()) {
+                key.add(request.getQueryParameters().get(param));
+            }
+            for(String header : annotation.varyByHeaders()) {
+                key.add(request.getRequestHeader(header));
+            }
+            if(negotiated) key.add(request.getRequestHeader(HttpHeaders.ACCEPT));
+            return key;
+        }
+
+        /**
+         * Runs the resource method, leaving its response in place, and serializes the entity if it can be cached.
+         */
+        @SuppressWarnings("unchecked")
+        private CachedResponse render(Object resource, HttpContext context) throws IOException, NotCacheableException {
+            underlying.dispatch(resource, context);
+
+            HttpResponseContext response = context.getResponse();
+            Object entity = response.getEntity();
+            if(response.getStatus() != Response.Status.OK.getStatusCode() || entity == null) throw new NotCacheableException();
+
+            MediaType mediaType = mediaTypeOf(context.getRequest(), response);
+            if(mediaType == null) throw new NotCacheableException();
+
+            //Content type and length are recomputed from the cached body, and the entity tag is replayed separately
+            ImmutableListMultimap.Builder<String, Object> headers = ImmutableListMultimap.builder();
+            Set<String> varyBy = Sets.newLinkedHashSet(vary);
+            EntityTag tag = null;
+            for(Map.Entry<String, List<Object>> header : response.getHttpHeaders().entrySet()) {
+                String name = header.getKey();
+                if(header.getValue() == null || header.getValue().isEmpty()) continue;
+
+                if(name.equalsIgnoreCase(HttpHeaders.SET_COOKIE)) {
+                    //Replaying one client's cookies to every other client is never safe
+                    throw new NotCacheableException();
+                } else if(name.equalsIgnoreCase(HttpHeaders.CACHE_CONTROL)) {
+                    for(Object value : header.getValue()) {
+                        if(forbidsSharedCaching(value)) throw new NotCacheableException();
+                    }
+                    headers.putAll(name, header.getValue());
+                } else if(name.equalsIgnoreCase(HttpHeaders.VARY)) {
+                    for(Object value : header.getValue()) {
+                        for(String varyHeader : HEADER_VALUES.split(value.toString())) varyBy.add(varyHeader);
+                    }
+                } else if(name.equalsIgnoreCase(HttpHeaders.ETAG)) {
+                    Object value = header.getValue().get(0);
+                    tag = value instanceof EntityTag ? (EntityTag) value : EntityTag.valueOf(value.toString());
+                } else if(!name.equalsIgnoreCase(HttpHeaders.CONTENT_TYPE) && !name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                    headers.putAll(name, header.getValue());
+                }
+            }
+            if(!varyBy.isEmpty()) headers.put(HttpHeaders.VARY, Joiner.on(", ").join(varyBy));
+
+            Type genericType = entity.getClass();
+            if(entity instanceof GenericEntity) {
+                genericType = ((GenericEntity<?>) entity).getType();
+                entity = ((GenericEntity<?>) entity).getEntity();
+            } else if(resourceMethod.getReturnType() != Response.class) {
+                genericType = resourceMethod.getGenericReturnType();
+            }
+
+            Annotation[] annotations = resourceMethod.getMethod().getAnnotations();
+            MessageBodyWriter<Object> writer = (MessageBodyWriter<Object>) providers.getMessageBodyWriter(
+                    entity.getClass(), genericType, annotations, mediaType);
+            if(writer == null) throw new NotCacheableException();
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            writer.writeTo(entity, entity.getClass(), genericType, annotations, mediaType, new OutBoundHeaders(), body);
+            return new CachedResponse(body.toByteArray(), mediaType, tag, headers.build());
+        }
+
+        private MediaType mediaTypeOf(HttpRequestContext request, HttpResponseContext response) {
+            Object contentType = response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+            if(contentType instanceof MediaType) return (MediaType) contentType;
+            if(contentType != null) return MediaType.valueOf(contentType.toString());
+
+            //Without an explicit type, only cache when the method produces one concrete type, or when the
+            //request's most acceptable type picks one out of several; the key then includes the Accept header
+            List<MediaType> produces = resourceMethod.getSupportedOutputTypes();
+            if(produces.size() == 1) return isConcrete(produces.get(0)) ? produces.get(0) : null;
+            for(MediaType acceptable : request.getAcceptableMediaTypes()) {
+                for(MediaType produced : produces) {
+                    if(isConcrete(produced) && acceptable.isCompatible(produced)) return produced;
+                }
+            }
+            return null;
+        }
+
+        private boolean forbidsSharedCaching(Object cacheControl) {
+            if(cacheControl instanceof CacheControl) {
+                CacheControl directives = (CacheControl) cacheControl;
+                return directives.isPrivate() || directives.isNoStore() || directives.isNoCache();
+            }
+            for(String directive : HEADER_VALUES.split(cacheControl.toString())) {
+                String lower = directive.toLowerCase(Locale.ENGLISH);
+                if(lower.startsWith("private") || lower.startsWith("no-store") || lower.startsWith("no-cache")) return true;
+            }
+            return false;
+        }
+
+        private boolean isConcrete(MediaType mediaType) {
+            return !mediaType.isWildcardType() && !mediaType.isWildcardSubtype();
+        }
+    }
+}
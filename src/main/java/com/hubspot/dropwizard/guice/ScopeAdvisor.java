@@ -0,0 +1,276 @@
+package com.hubspot.dropwizard.guice;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.inject.Binding;
+import com.google.inject.ConfigurationException;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.Scopes;
+import com.google.inject.Singleton;
+import com.google.inject.Stage;
+import com.google.inject.spi.ConstructorBinding;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.ProviderInstanceBinding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.MatrixParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Finds unscoped classes, and especially Jersey resources, that are rebuilt on every request
+ * without needing to be.
+ * Provisions are counted by {@link ProvisionCountingModule}.  Classes are singleton candidates when
+ * all instance fields are final, there is no Jersey request injection, and there are no request scoped
+ * dependencies, directly or through other unscoped dependencies.  Only singleton and configuration
+ * dependencies are safe to capture; request, session and custom scoped ones are not.
+ * Final fields can still hold mutable objects, so candidates are only verified stateless when every
+ * instance field is also either of an immutable type (primitives, boxed types, strings and enums) or of
+ * a type supplied by one of the class's checked dependencies.
+ * When promotion is enabled, verified unscoped resources are served by {@link GuiceContainer} as singletons;
+ * other candidates are only logged.
+ */
+public class ScopeAdvisor {
+    private static final List<Class<? extends Annotation>> REQUEST_ANNOTATIONS = ImmutableList.of(
+            Context.class, QueryParam.class, PathParam.class, HeaderParam.class,
+            CookieParam.class, FormParam.class, MatrixParam.class);
+    private static final Set<Class<?>> IMMUTABLE_TYPES = ImmutableSet.<Class<?>>of(
+            String.class, Boolean.class, Byte.class, Character.class, Short.class,
+            Integer.class, Long.class, Float.class, Double.class);
+    private static final Set<Class<?>> GUICE_SUPPLIED = ImmutableSet.<Class<?>>of(
+            Injector.class, Stage.class, java.util.logging.Logger.class);
+
+    final Logger logger = LoggerFactory.getLogger(ScopeAdvisor.class);
+
+    private final boolean promoteStatelessResources;
+    private final ConcurrentMap<Class<?>, AtomicLong> provisions = Maps.newConcurrentMap();
+
+    public ScopeAdvisor(boolean promoteStatelessResources) {
+        this.promoteStatelessResources = promoteStatelessResources;
+    }
+
+    /**
+     * The provision counter for a class, incremented by {@link ProvisionCountingModule}.
+     */
+    AtomicLong counterFor(Class<?> cls) {
+        AtomicLong counter = new AtomicLong();
+        AtomicLong existing = provisions.putIfAbsent(cls, counter);
+        return existing != null ? existing : counter;
+    }
+
+    /**
+     * Called as Jersey sets up each component.  Logs advice for unscoped stateless resources and
+     * returns whether the resource should be promoted to a singleton.
+     */
+    boolean shouldPromote(Injector injector, Class<?> cls) {
+        if(!cls.isAnnotationPresent(Path.class)) return false;
+
+        Binding<?> binding = findBinding(injector, Key.get(cls));
+        if(binding == null || !isUnscoped(binding)) return false;
+        String state = findState(injector, binding, Sets.<Key<?>>newHashSet(), false);
+        if(state != null) {
+            if(promoteStatelessResources) logger.info("Not serving resource {} as a singleton: {}", cls.getName(), state);
+            return false;
+        }
+
+        String unverified = findState(injector, binding, Sets.<Key<?>>newHashSet(), true);
+        if(promoteStatelessResources && unverified == null) {
+            logger.info("Serving stateless resource {} as a singleton", cls.getName());
+            return true;
+        }
+        if(promoteStatelessResources) {
+            logger.info("Resource {} is built on every request and looks stateless, but is not promoted: {}. "
+                    + "Review it and consider making it a @Singleton", cls.getName(), unverified);
+        } else {
+            logger.info("Resource {} is built on every request but holds no request state; consider making it a @Singleton", cls.getName());
+        }
+        return false;
+    }
+
+    /**
+     * Writes the unscoped classes Guice has built, most provisioned first.
+     */
+    public void report(Injector injector, PrintWriter output) {
+        List<Map.Entry<Class<?>, AtomicLong>> entries = Lists.newArrayList(provisions.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Class<?>, AtomicLong>>() {
+            @Override
+            public int compare(Map.Entry<Class<?>, AtomicLong> a, Map.Entry<Class<?>, AtomicLong> b) {
+                long x = a.getValue().get(), y = b.getValue().get();
+                return x < y ? 1 : (x == y ? 0 : -1);
+            }
+        });
+
+        for(Map.Entry<Class<?>, AtomicLong> entry : entries) {
+            Class<?> cls = entry.getKey();
+            long count = entry.getValue().get();
+            if(count == 0) continue;
+
+            Binding<?> binding = injector.getExistingBinding(Key.get(cls));
+            if(binding == null || !isUnscoped(binding)) continue;
+
+            String state = "";
+            if(findState(injector, binding, Sets.<Key<?>>newHashSet(), true) == null) state = ", verified stateless";
+            else if(findState(injector, binding, Sets.<Key<?>>newHashSet(), false) == null) state = ", singleton candidate";
+            output.printf("%s: %d provisions%s%s%n", cls.getName(), count,
+                    cls.isAnnotationPresent(Path.class) ? ", resource" : "", state);
+        }
+        output.flush();
+    }
+
+    /**
+     * Why an instance from this binding could not be shared across requests, or null if it could.
+     * @param verify also require every instance field to be immutable or supplied by a dependency
+     */
+    private String findState(Injector injector, Binding<?> binding, Set<Key<?>> visited, boolean verify) {
+        Key<?> key = binding.getKey();
+        if(!visited.add(key)) return null;
+        if(binding instanceof InstanceBinding || isSingleton(binding)) return null;
+        //A singleton would keep the instance from whichever request, session or custom scope built it first
+        if(!isUnscoped(binding)) return format("%s is scoped %s", key, binding.acceptScopingVisitor(InjectorReportTask.SCOPE_NAME));
+
+        Class<?> rawType = key.getTypeLiteral().getRawType();
+        if(binding instanceof LinkedKeyBinding) {
+            Binding<?> target = findBinding(injector, ((LinkedKeyBinding<?>) binding).getLinkedKey());
+            return target != null ? findState(injector, target, visited, verify) : format("%s has no binding", key);
+        }
+        //Configuration values are the same objects for the life of the application
+        if(binding instanceof ProviderInstanceBinding
+                && ((ProviderInstanceBinding<?>) binding).getProviderInstance() instanceof DropwizardEnvironmentModule.ConfigurationProvider) {
+            return null;
+        }
+        //Other unscoped provider bindings cannot be inspected, apart from the ones Guice supplies itself
+        if(!(binding instanceof ConstructorBinding)) {
+            return GUICE_SUPPLIED.contains(rawType) ? null : format("%s is bound to a provider that cannot be inspected", key);
+        }
+
+        List<Class<?>> dependencyTypes = Lists.newArrayList();
+        for(Dependency<?> dependency : ((HasDependencies) binding).getDependencies()) {
+            Key<?> dependencyKey = dependency.getKey();
+            Class<?> dependencyType = dependencyKey.getTypeLiteral().getRawType();
+            dependencyTypes.add(dependencyType);
+            //Providers are resolved on each call, which is safe from a singleton
+            if(dependencyType == Provider.class || dependencyType == javax.inject.Provider.class) continue;
+
+            //Unscoped dependencies would be frozen along with the resource, so they must be stateless too
+            Binding<?> dependencyBinding = findBinding(injector, dependencyKey);
+            if(dependencyBinding == null) return format("%s has no binding", dependencyKey);
+            String state = findState(injector, dependencyBinding, visited, verify);
+            if(state != null) return state;
+        }
+        return findInstanceState(rawType, dependencyTypes, verify);
+    }
+
+    private String findInstanceState(Class<?> cls, List<Class<?>> dependencyTypes, boolean verify) {
+        for(Class<?> current = cls; current != null && current != Object.class; current = current.getSuperclass()) {
+            for(Field field : current.getDeclaredFields()) {
+                if(Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+                if(!Modifier.isFinal(field.getModifiers())) return format("%s is not final", field);
+                if(hasRequestAnnotation(field)) return format("%s is injected per request", field);
+                if(verify && !isImmutable(field.getType()) && !isSuppliedBy(field.getType(), dependencyTypes)) {
+                    return format("%s may hold a mutable object", field);
+                }
+            }
+            for(Method method : current.getDeclaredMethods()) {
+                if(hasRequestAnnotation(method)) return format("%s is injected per request", method);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || IMMUTABLE_TYPES.contains(type);
+    }
+
+    //A field whose type matches a checked dependency is taken to hold that dependency
+    private static boolean isSuppliedBy(Class<?> fieldType, List<Class<?>> dependencyTypes) {
+        if(fieldType == Object.class) return false;
+        for(Class<?> dependencyType : dependencyTypes) {
+            if(fieldType.isAssignableFrom(dependencyType)) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasRequestAnnotation(AccessibleObject member) {
+        for(Class<? extends Annotation> annotation : REQUEST_ANNOTATIONS) {
+            if(member.isAnnotationPresent(annotation)) return true;
+        }
+        return false;
+    }
+
+    private static Binding<?> findBinding(Injector injector, Key<?> key) {
+        try {
+            return injector.getBinding(key);
+        } catch(ConfigurationException e) {
+            return null;
+        }
+    }
+
+    private static boolean isUnscoped(Binding<?> binding) {
+        return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+            @Override
+            public Boolean visitNoScoping() {
+                return true;
+            }
+
+            @Override
+            protected Boolean visitOther() {
+                return false;
+            }
+        });
+    }
+
+    private static boolean isSingleton(Binding<?> binding) {
+        return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+            @Override
+            public Boolean visitEagerSingleton() {
+                return true;
+            }
+
+            @Override
+            public Boolean visitScope(Scope scope) {
+                return scope == Scopes.SINGLETON;
+            }
+
+            @Override
+            public Boolean visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+                return scopeAnnotation == Singleton.class || scopeAnnotation == javax.inject.Singleton.class;
+            }
+
+            @Override
+            protected Boolean visitOther() {
+                return false;
+            }
+        });
+    }
+}
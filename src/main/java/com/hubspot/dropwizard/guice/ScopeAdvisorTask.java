@@ -0,0 +1,28 @@
+package com.hubspot.dropwizard.guice;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+
+/**
+ * Admin task listing unscoped classes by how often Guice has built them, flagging stateless
+ * ones that could be singletons.  See {@link ScopeAdvisor}.
+ */
+public class ScopeAdvisorTask extends Task {
+    private final ScopeAdvisor advisor;
+    private final Provider<Injector> injector;
+
+    public ScopeAdvisorTask(ScopeAdvisor advisor, Provider<Injector> injector) {
+        super("guice-scope-advisor");
+        this.advisor = advisor;
+        this.injector = injector;
+    }
+
+    @Override
+    public void execute(ImmutableMultimap<String, String> parameters, PrintWriter output) throws Exception {
+        advisor.report(injector.get(), output);
+    }
+}
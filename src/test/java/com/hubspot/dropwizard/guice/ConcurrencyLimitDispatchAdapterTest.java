@@ -0,0 +1,91 @@
+package com.hubspot.dropwizard.guice;
+
+import org.junit.Test;
+
+import javax.ws.rs.PathParam;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrencyLimitDispatchAdapterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @ConcurrencyLimit(initialLimit = 2, minLimit = 1, maxLimit = 4, latencyThresholdMillis = 100, backoffRatio = 0.5)
+    public static class LimitedResource {
+        public String get() {
+            return "all";
+        }
+
+        public String get(@PathParam("id") String id) {
+            return id;
+        }
+    }
+
+    private static ConcurrencyLimitDispatchAdapter.AimdLimiter newLimiter() {
+        return new ConcurrencyLimitDispatchAdapter.AimdLimiter(LimitedResource.class.getAnnotation(ConcurrencyLimit.class));
+    }
+
+    @Test
+    public void rejectsOverLimit() {
+        ConcurrencyLimitDispatchAdapter.AimdLimiter limiter = newLimiter();
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(FAST);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void backsOffOnSlowRequestsDownToMinimum() {
+        ConcurrencyLimitDispatchAdapter.AimdLimiter limiter = newLimiter();
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SLOW);
+        assertEquals(1, limiter.getLimit());
+
+        for(int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(SLOW);
+        }
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void growsWhileUtilizedUpToMaximum() {
+        ConcurrencyLimitDispatchAdapter.AimdLimiter limiter = newLimiter();
+
+        for(int round = 0; round < 50; round++) {
+            int acquired = 0;
+            while(limiter.tryAcquire()) acquired++;
+            for(int i = 0; i < acquired; i++) limiter.release(FAST);
+        }
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void doesNotGrowWhenUnderused() {
+        ConcurrencyLimitDispatchAdapter.AimdLimiter limiter = newLimiter();
+
+        for(int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void overloadedMethodsGetDistinctNames() throws Exception {
+        String all = ConcurrencyLimitDispatchAdapter.metricName(LimitedResource.class, LimitedResource.class.getMethod("get"));
+        String one = ConcurrencyLimitDispatchAdapter.metricName(LimitedResource.class, LimitedResource.class.getMethod("get", String.class));
+
+        assertNotEquals(all, one);
+    }
+}
@@ -0,0 +1,13 @@
+package com.hubspot.dropwizard.guice;
+
+/**
+ * Exposes package-private {@link GuiceBundle} test hooks to tests in other packages.
+ */
+public class GuiceBundleHooks {
+    private GuiceBundleHooks() {
+    }
+
+    public static void disableGuiceFilter(GuiceBundle<?> bundle) {
+        bundle.disableGuiceFilter();
+    }
+}
@@ -0,0 +1,378 @@
+package com.hubspot.dropwizard.guice;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.api.core.HttpRequestContext;
+import com.sun.jersey.api.core.HttpResponseContext;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResponseCacheDispatchAdapterTest {
+    private static final byte[] BODY = "hello".getBytes(Charsets.UTF_8);
+
+    public static class CachedResource {
+        @GET
+        @CacheResponse(varyByHeaders = "X-Tenant")
+        public String get() {
+            return "hello";
+        }
+
+        @GET
+        @CacheResponse(varyByHeaders = "Authorization")
+        public String getForCaller() {
+            return "hello";
+        }
+    }
+
+    private static class StringWriter implements MessageBodyWriter<Object> {
+        @Override
+        public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            return true;
+        }
+
+        @Override
+        public long getSize(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+            entityStream.write(o.toString().getBytes(Charsets.UTF_8));
+        }
+    }
+
+    /**
+     * Stands in for the resource method: counts calls, and leaves the configured response in place.
+     */
+    private static class CountingDispatcher implements RequestDispatcher {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile CountDownLatch entered = new CountDownLatch(0);
+        private volatile CountDownLatch release = new CountDownLatch(0);
+        private volatile RuntimeException failure;
+
+        @Override
+        public void dispatch(Object resource, HttpContext context) {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if(failure != null) throw failure;
+        }
+    }
+
+    private final CountingDispatcher underlying = new CountingDispatcher();
+    private final AbstractResourceMethod resourceMethod = mock(AbstractResourceMethod.class);
+    private int status = 200;
+    private OutBoundHeaders responseHeaders = new OutBoundHeaders();
+    private String accept = MediaType.TEXT_PLAIN;
+    private String authorization;
+    private String ifNoneMatch;
+
+    @Before
+    public void setUp() throws Exception {
+        when(resourceMethod.getMethod()).thenReturn(CachedResource.class.getMethod("get"));
+        when(resourceMethod.getHttpMethod()).thenReturn("GET");
+        doReturn(String.class).when(resourceMethod).getReturnType();
+        doReturn(String.class).when(resourceMethod).getGenericReturnType();
+        producing(MediaType.TEXT_PLAIN_TYPE);
+    }
+
+    private void producing(MediaType... mediaTypes) {
+        when(resourceMethod.getSupportedOutputTypes()).thenReturn(ImmutableList.copyOf(mediaTypes));
+    }
+
+    private RequestDispatcher newDispatcher() {
+        Providers providers = mock(Providers.class);
+        doReturn(new StringWriter()).when(providers).getMessageBodyWriter(
+                any(Class.class), any(Type.class), any(Annotation[].class), any(MediaType.class));
+
+        ResourceMethodDispatchProvider provider = mock(ResourceMethodDispatchProvider.class);
+        when(provider.create(resourceMethod)).thenReturn(underlying);
+        return new ResponseCacheDispatchAdapter(providers).adapt(provider).create(resourceMethod);
+    }
+
+    private HttpContext newContext() {
+        HttpRequestContext request = mock(HttpRequestContext.class);
+        when(request.getPath()).thenReturn("hello");
+        when(request.getRequestHeader("X-Tenant")).thenReturn(ImmutableList.of("a"));
+        when(request.getRequestHeader(HttpHeaders.ACCEPT)).thenReturn(ImmutableList.of(accept));
+        when(request.getAcceptableMediaTypes()).thenReturn(ImmutableList.of(MediaType.valueOf(accept)));
+        if(authorization != null) {
+            when(request.getRequestHeader(HttpHeaders.AUTHORIZATION)).thenReturn(ImmutableList.of(authorization));
+        }
+        final String ifNoneMatch = this.ifNoneMatch;
+        when(request.evaluatePreconditions(any(EntityTag.class))).thenAnswer(new Answer<Response.ResponseBuilder>() {
+            @Override
+            public Response.ResponseBuilder answer(InvocationOnMock invocation) {
+                EntityTag tag = (EntityTag) invocation.getArguments()[0];
+                return ifNoneMatch != null && EntityTag.valueOf(ifNoneMatch).equals(tag) ? Response.notModified() : null;
+            }
+        });
+
+        HttpResponseContext response = mock(HttpResponseContext.class);
+        when(response.getStatus()).thenReturn(status);
+        doReturn("hello").when(response).getEntity();
+        when(response.getHttpHeaders()).thenReturn(responseHeaders);
+
+        HttpContext context = mock(HttpContext.class);
+        when(context.getRequest()).thenReturn(request);
+        when(context.getResponse()).thenReturn(response);
+        return context;
+    }
+
+    private static Response responseOf(HttpContext context) {
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        verify(context.getResponse()).setResponse(response.capture());
+        return response.getValue();
+    }
+
+    @Test
+    public void servesRepeatRequestsFromCache() {
+        RequestDispatcher dispatcher = newDispatcher();
+        HttpContext first = newContext();
+        HttpContext second = newContext();
+
+        dispatcher.dispatch(new CachedResource(), first);
+        dispatcher.dispatch(new CachedResource(), second);
+
+        assertEquals(1, underlying.calls.get());
+        assertArrayEquals(BODY, (byte[]) responseOf(second).getEntity());
+        assertEquals(MediaType.TEXT_PLAIN_TYPE, responseOf(second).getMetadata().getFirst(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    public void computesConcurrentMissesOnce() throws Exception {
+        final RequestDispatcher dispatcher = newDispatcher();
+        underlying.entered = new CountDownLatch(1);
+        underlying.release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final HttpContext loader = newContext();
+            final HttpContext waiter = newContext();
+            Future<?> loading = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    dispatcher.dispatch(new CachedResource(), loader);
+                }
+            });
+            underlying.entered.await(5, TimeUnit.SECONDS);
+            Future<?> waiting = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    dispatcher.dispatch(new CachedResource(), waiter);
+                }
+            });
+
+            //Give the second request time to block on the load in progress
+            Thread.sleep(100);
+            underlying.release.countDown();
+            loading.get(5, TimeUnit.SECONDS);
+            waiting.get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, underlying.calls.get());
+            assertArrayEquals(BODY, (byte[]) responseOf(loader).getEntity());
+            assertArrayEquals(BODY, (byte[]) responseOf(waiter).getEntity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void passesThroughErrorResponses() {
+        status = 500;
+        RequestDispatcher dispatcher = newDispatcher();
+        HttpContext first = newContext();
+
+        dispatcher.dispatch(new CachedResource(), first);
+        dispatcher.dispatch(new CachedResource(), newContext());
+
+        assertEquals(2, underlying.calls.get());
+        verify(first.getResponse(), never()).setResponse(any(Response.class));
+    }
+
+    @Test
+    public void propagatesExceptionsWithoutCaching() {
+        RequestDispatcher dispatcher = newDispatcher();
+        RuntimeException failure = new IllegalStateException("boom");
+        underlying.failure = failure;
+
+        try {
+            dispatcher.dispatch(new CachedResource(), newContext());
+            fail();
+        } catch(IllegalStateException e) {
+            assertSame(failure, e);
+        }
+
+        underlying.failure = null;
+        dispatcher.dispatch(new CachedResource(), newContext());
+        assertEquals(2, underlying.calls.get());
+    }
+
+    @Test
+    public void replaysResourceHeadersAndVary() {
+        responseHeaders.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=30");
+        responseHeaders.putSingle(HttpHeaders.ETAG, new EntityTag("v1"));
+        responseHeaders.putSingle(HttpHeaders.VARY, "Accept-Language");
+        RequestDispatcher dispatcher = newDispatcher();
+        HttpContext first = newContext();
+        HttpContext second = newContext();
+
+        dispatcher.dispatch(new CachedResource(), first);
+        dispatcher.dispatch(new CachedResource(), second);
+
+        assertEquals(1, underlying.calls.get());
+        for(HttpContext context : ImmutableList.of(first, second)) {
+            MultivaluedMap<String, Object> headers = responseOf(context).getMetadata();
+            assertEquals("max-age=30", headers.getFirst(HttpHeaders.CACHE_CONTROL));
+            assertEquals(new EntityTag("v1"), headers.getFirst(HttpHeaders.ETAG));
+            assertEquals("X-Tenant, Accept-Language", headers.getFirst(HttpHeaders.VARY));
+        }
+    }
+
+    @Test
+    public void doesNotCacheResponsesSettingCookies() {
+        responseHeaders.putSingle(HttpHeaders.SET_COOKIE, "session=abc");
+        RequestDispatcher dispatcher = newDispatcher();
+
+        dispatcher.dispatch(new CachedResource(), newContext());
+        dispatcher.dispatch(new CachedResource(), newContext());
+
+        assertEquals(2, underlying.calls.get());
+    }
+
+    @Test
+    public void cachesNegotiatedResponsesPerAcceptHeader() {
+        producing(MediaType.APPLICATION_JSON_TYPE, MediaType.TEXT_PLAIN_TYPE);
+        RequestDispatcher dispatcher = newDispatcher();
+
+        accept = MediaType.APPLICATION_JSON;
+        HttpContext json = newContext();
+        dispatcher.dispatch(new CachedResource(), json);
+        accept = MediaType.TEXT_PLAIN;
+        HttpContext text = newContext();
+        dispatcher.dispatch(new CachedResource(), text);
+        dispatcher.dispatch(new CachedResource(), newContext());
+
+        assertEquals(2, underlying.calls.get());
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, responseOf(json).getMetadata().getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals(MediaType.TEXT_PLAIN_TYPE, responseOf(text).getMetadata().getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals("X-Tenant, Accept", responseOf(text).getMetadata().getFirst(HttpHeaders.VARY));
+    }
+
+    @Test
+    public void answersMatchingConditionalRequestsWithNotModified() {
+        responseHeaders.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=30");
+        RequestDispatcher dispatcher = newDispatcher();
+        HttpContext first = newContext();
+        dispatcher.dispatch(new CachedResource(), first);
+        EntityTag tag = (EntityTag) responseOf(first).getMetadata().getFirst(HttpHeaders.ETAG);
+
+        ifNoneMatch = tag.toString();
+        HttpContext matching = newContext();
+        dispatcher.dispatch(new CachedResource(), matching);
+        ifNoneMatch = new EntityTag("stale").toString();
+        HttpContext stale = newContext();
+        dispatcher.dispatch(new CachedResource(), stale);
+
+        assertEquals(1, underlying.calls.get());
+        Response notModified = responseOf(matching);
+        assertEquals(304, notModified.getStatus());
+        assertNull(notModified.getEntity());
+        assertEquals(tag, notModified.getMetadata().getFirst(HttpHeaders.ETAG));
+        assertEquals("max-age=30", notModified.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL));
+        assertEquals(200, responseOf(stale).getStatus());
+        assertArrayEquals(BODY, (byte[]) responseOf(stale).getEntity());
+    }
+
+    @Test
+    public void doesNotCachePrivateResponses() {
+        CacheControl privateControl = new CacheControl();
+        privateControl.setPrivate(true);
+        int expectedCalls = 0;
+        for(Object cacheControl : ImmutableList.<Object>of("private", "no-store", "max-age=0, no-cache", privateControl)) {
+            responseHeaders = new OutBoundHeaders();
+            responseHeaders.putSingle(HttpHeaders.CACHE_CONTROL, cacheControl);
+            RequestDispatcher dispatcher = newDispatcher();
+
+            HttpContext first = newContext();
+            dispatcher.dispatch(new CachedResource(), first);
+            dispatcher.dispatch(new CachedResource(), newContext());
+
+            expectedCalls += 2;
+            assertEquals(cacheControl.toString(), expectedCalls, underlying.calls.get());
+            verify(first.getResponse(), never()).setResponse(any(Response.class));
+        }
+    }
+
+    @Test
+    public void bypassesCacheForAuthorizedRequests() {
+        RequestDispatcher dispatcher = newDispatcher();
+
+        authorization = "Bearer a";
+        HttpContext first = newContext();
+        dispatcher.dispatch(new CachedResource(), first);
+        dispatcher.dispatch(new CachedResource(), newContext());
+
+        assertEquals(2, underlying.calls.get());
+        verify(first.getResponse(), never()).setResponse(any(Response.class));
+    }
+
+    @Test
+    public void cachesAuthorizedRequestsPerCallerWhenKeyedByAuthorization() throws Exception {
+        when(resourceMethod.getMethod()).thenReturn(CachedResource.class.getMethod("getForCaller"));
+        RequestDispatcher dispatcher = newDispatcher();
+
+        authorization = "Bearer a";
+        dispatcher.dispatch(new CachedResource(), newContext());
+        dispatcher.dispatch(new CachedResource(), newContext());
+        authorization = "Bearer b";
+        dispatcher.dispatch(new CachedResource(), newContext());
+
+        assertEquals(2, underlying.calls.get());
+    }
+}
@@ -0,0 +1,154 @@
+package com.hubspot.dropwizard.guice;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.servlet.RequestScoped;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.SessionScoped;
+import io.dropwizard.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.UriInfo;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScopeAdvisorTest {
+    public static class TestConfiguration extends Configuration {
+        @JsonProperty
+        private String greeting = "hello";
+    }
+
+    @Singleton
+    public static class SharedService {
+    }
+
+    @RequestScoped
+    public static class RequestState {
+    }
+
+    @SessionScoped
+    public static class SessionState {
+    }
+
+    @Path("/stateless")
+    public static class StatelessResource {
+        private final SharedService service;
+        private final String greeting;
+        private final int limit = 10;
+
+        @Inject
+        public StatelessResource(SharedService service, @Named("greeting") String greeting) {
+            this.service = service;
+            this.greeting = greeting;
+        }
+    }
+
+    @Path("/mutable")
+    public static class MutableFieldResource {
+        private final List<String> errors = Lists.newArrayList();
+
+        @Inject
+        public MutableFieldResource() {
+        }
+    }
+
+    @Path("/context")
+    public static class ContextFieldResource {
+        @Context
+        private final UriInfo uriInfo = null;
+
+        @Inject
+        public ContextFieldResource() {
+        }
+    }
+
+    @Path("/request")
+    public static class RequestScopedDependencyResource {
+        private final RequestState state;
+
+        @Inject
+        public RequestScopedDependencyResource(RequestState state) {
+            this.state = state;
+        }
+    }
+
+    @Path("/session")
+    public static class SessionScopedDependencyResource {
+        private final SessionState state;
+
+        @Inject
+        public SessionScopedDependencyResource(SessionState state) {
+            this.state = state;
+        }
+    }
+
+    @Path("/provider")
+    public static class ProviderDependencyResource {
+        private final Provider<RequestState> state;
+
+        @Inject
+        public ProviderDependencyResource(Provider<RequestState> state) {
+            this.state = state;
+        }
+    }
+
+    private Injector injector;
+
+    @Before
+    public void setUp() {
+        DropwizardEnvironmentModule<TestConfiguration> environmentModule =
+                new DropwizardEnvironmentModule<TestConfiguration>(TestConfiguration.class, null);
+        environmentModule.setEnvironmentData(null, null, new TestConfiguration());
+        injector = Guice.createInjector(new ServletModule(), environmentModule);
+    }
+
+    private boolean promoted(Class<?> resource) {
+        return new ScopeAdvisor(true).shouldPromote(injector, resource);
+    }
+
+    @Test
+    public void promotesVerifiedStatelessResource() {
+        assertTrue(promoted(StatelessResource.class));
+    }
+
+    @Test
+    public void onlyAdvisesWhenPromotionIsOff() {
+        assertFalse(new ScopeAdvisor(false).shouldPromote(injector, StatelessResource.class));
+    }
+
+    @Test
+    public void keepsResourceWithMutableFinalField() {
+        assertFalse(promoted(MutableFieldResource.class));
+    }
+
+    @Test
+    public void keepsResourceWithContextField() {
+        assertFalse(promoted(ContextFieldResource.class));
+    }
+
+    @Test
+    public void keepsResourceWithRequestScopedDependency() {
+        assertFalse(promoted(RequestScopedDependencyResource.class));
+    }
+
+    @Test
+    public void keepsResourceWithSessionScopedDependency() {
+        assertFalse(promoted(SessionScopedDependencyResource.class));
+    }
+
+    @Test
+    public void promotesResourceWithProviderDependency() {
+        assertTrue(promoted(ProviderDependencyResource.class));
+    }
+}
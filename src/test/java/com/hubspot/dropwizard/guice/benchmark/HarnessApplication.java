@@ -0,0 +1,72 @@
+package com.hubspot.dropwizard.guice.benchmark;
+
+import com.google.inject.AbstractModule;
+import com.hubspot.dropwizard.guice.GuiceBundle;
+import com.hubspot.dropwizard.guice.GuiceBundleHooks;
+import com.hubspot.dropwizard.guice.benchmark.plain.PlainResource;
+import io.dropwizard.Application;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.LifeCycle;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Sample application served in-process by {@link LoadHarness}.
+ * Without a resource package it serves a plain Jersey resource and never installs the {@link GuiceBundle}.
+ * Without the Guice filter, the bundle serves Jersey with no Guice request scope.
+ */
+public class HarnessApplication extends Application<HarnessConfiguration> {
+    private final String resourcePackage;
+    private final boolean guiceFilter;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile Server server;
+
+    public HarnessApplication(String resourcePackage, boolean guiceFilter) {
+        this.resourcePackage = resourcePackage;
+        this.guiceFilter = guiceFilter;
+    }
+
+    @Override
+    public void initialize(Bootstrap<HarnessConfiguration> bootstrap) {
+        if(resourcePackage == null) return;
+
+        GuiceBundle<HarnessConfiguration> guiceBundle = GuiceBundle.<HarnessConfiguration>newBuilder()
+                .addModule(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                    }
+                })
+                .setConfigClass(HarnessConfiguration.class)
+                .enableAutoConfig(resourcePackage)
+                .build();
+        if(!guiceFilter) GuiceBundleHooks.disableGuiceFilter(guiceBundle);
+        bootstrap.addBundle(guiceBundle);
+    }
+
+    @Override
+    public void run(HarnessConfiguration configuration, Environment environment) {
+        if(resourcePackage == null) environment.jersey().register(new PlainResource());
+
+        environment.lifecycle().addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+            @Override
+            public void lifeCycleStarted(LifeCycle event) {
+                server = (Server) event;
+                started.countDown();
+            }
+        });
+    }
+
+    public int awaitPort() throws InterruptedException {
+        started.await();
+        //The application connector is built before the admin connector
+        return ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    }
+
+    public void stop() throws Exception {
+        server.stop();
+    }
+}
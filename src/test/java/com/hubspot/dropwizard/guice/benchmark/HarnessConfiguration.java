@@ -0,0 +1,13 @@
+package com.hubspot.dropwizard.guice.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.Configuration;
+
+public class HarnessConfiguration extends Configuration {
+    @JsonProperty
+    private String greeting = "hello";
+
+    public String getGreeting() {
+        return greeting;
+    }
+}
@@ -0,0 +1,201 @@
+package com.hubspot.dropwizard.guice.benchmark;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process throughput and latency harness for the GuiceBundle request pipeline.
+ * Comparing GUICE_SINGLETON_WITHOUT_FILTER with PLAIN_JERSEY and GUICE_SINGLETON separates the cost of Guice
+ * provisioning from the cost of GuiceFilter.
+ * Each configuration is started on an ephemeral port and driven twice: closed loop with a fixed
+ * number of connections, and open loop at a fixed request rate.  Open loop latency is measured from
+ * each request's intended start time, so stalls are not hidden by coordinated omission.
+ * Not a unit test; run it with
+ * {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test}
+ * then {@code java -cp target/test-classes:target/classes:$(cat target/cp.txt)
+ * com.hubspot.dropwizard.guice.benchmark.LoadHarness [seconds] [rate] [connections]}.
+ * Under exec:java, Dropwizard does not discover its connector types and the configuration fails to parse.
+ */
+public class LoadHarness {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private enum Variant {
+        PLAIN_JERSEY(null, false),
+        GUICE_SINGLETON_WITHOUT_FILTER("com.hubspot.dropwizard.guice.benchmark.singleton", false),
+        GUICE_SINGLETON("com.hubspot.dropwizard.guice.benchmark.singleton", true),
+        GUICE_REQUEST_SCOPED("com.hubspot.dropwizard.guice.benchmark.scoped", true),
+        GUICE_CONFIG_INJECTED("com.hubspot.dropwizard.guice.benchmark.config", true);
+
+        private final String resourcePackage;
+        private final boolean guiceFilter;
+
+        Variant(String resourcePackage, boolean guiceFilter) {
+            this.resourcePackage = resourcePackage;
+            this.guiceFilter = guiceFilter;
+        }
+    }
+
+    private final int seconds;
+    private final int rate;
+    private final int connections;
+
+    public LoadHarness(int seconds, int rate, int connections) {
+        this.seconds = seconds;
+        this.rate = rate;
+        this.connections = connections;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        File config = writeConfig();
+        LoadHarness harness = new LoadHarness(seconds, rate, connections);
+        for(Variant variant : Variant.values()) {
+            harness.run(variant, config);
+        }
+        System.exit(0);
+    }
+
+    private static File writeConfig() throws IOException {
+        File config = File.createTempFile("load-harness", ".yml");
+        config.deleteOnExit();
+        Files.write("greeting: hello\n"
+                + "server:\n"
+                + "  applicationConnectors:\n"
+                + "    - type: http\n"
+                + "      port: 0\n"
+                + "  adminConnectors:\n"
+                + "    - type: http\n"
+                + "      port: 0\n"
+                + "  requestLog:\n"
+                + "    appenders: []\n"
+                + "logging:\n"
+                + "  level: WARN\n", config, Charsets.UTF_8);
+        return config;
+    }
+
+    private void run(Variant variant, File config) throws Exception {
+        HarnessApplication application = new HarnessApplication(variant.resourcePackage, variant.guiceFilter);
+        application.run(new String[]{"server", config.getAbsolutePath()});
+        try {
+            URL url = new URL("http://localhost:" + application.awaitPort() + "/hello");
+
+            closedLoop(url, Math.max(1, seconds / 3));
+            Histogram closed = closedLoop(url, seconds);
+            Histogram open = openLoop(url, seconds);
+
+            report(variant + " closed loop, " + connections + " connections", closed);
+            report(variant + " open loop, " + rate + " req/s", open);
+        } finally {
+            application.stop();
+        }
+    }
+
+    private Histogram closedLoop(final URL url, int duration) throws Exception {
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(duration);
+        List<Callable<Histogram>> workers = Lists.newArrayList();
+        for(int i = 0; i < connections; i++) {
+            workers.add(new Callable<Histogram>() {
+                @Override
+                public Histogram call() throws Exception {
+                    Histogram histogram = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+                    while(System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        request(url);
+                        record(histogram, System.nanoTime() - start);
+                    }
+                    return histogram;
+                }
+            });
+        }
+        return runWorkers(workers);
+    }
+
+    private Histogram openLoop(final URL url, int duration) throws Exception {
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        final long end = start + TimeUnit.SECONDS.toNanos(duration);
+        final AtomicLong next = new AtomicLong();
+
+        //Enough workers that a slow response delays measurement of later requests rather than their sending
+        List<Callable<Histogram>> workers = Lists.newArrayList();
+        for(int i = 0; i < connections * 4; i++) {
+            workers.add(new Callable<Histogram>() {
+                @Override
+                public Histogram call() throws Exception {
+                    Histogram histogram = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+                    while(true) {
+                        long intended = start + next.getAndIncrement() * intervalNanos;
+                        if(intended >= end) return histogram;
+
+                        //parkNanos may return early
+                        for(long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        request(url);
+                        record(histogram, System.nanoTime() - intended);
+                    }
+                }
+            });
+        }
+        return runWorkers(workers);
+    }
+
+    private static Histogram runWorkers(List<Callable<Histogram>> workers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        try {
+            Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+            for(Future<Histogram> result : executor.invokeAll(workers)) {
+                total.add(result.get());
+            }
+            return total;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void request(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        InputStream body = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if(body != null) {
+            //Fully reading the body lets the connection be reused
+            ByteStreams.toByteArray(body);
+            body.close();
+        }
+    }
+
+    private static void record(Histogram histogram, long nanos) {
+        histogram.recordValue(Math.max(0, Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos))));
+    }
+
+    private void report(String label, Histogram histogram) {
+        System.out.printf("%s: %d requests, %.0f req/s, latency us p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                label,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / (double) seconds,
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue());
+    }
+}
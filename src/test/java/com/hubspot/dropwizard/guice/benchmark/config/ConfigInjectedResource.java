@@ -0,0 +1,28 @@
+package com.hubspot.dropwizard.guice.benchmark.config;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Unscoped, with a configuration value injected on every request.
+ */
+@Path("/hello")
+@Produces(MediaType.TEXT_PLAIN)
+public class ConfigInjectedResource {
+    private final String greeting;
+
+    @Inject
+    public ConfigInjectedResource(@Named("greeting") String greeting) {
+        this.greeting = greeting;
+    }
+
+    @GET
+    public String get() {
+        return greeting;
+    }
+}
@@ -0,0 +1,15 @@
+package com.hubspot.dropwizard.guice.benchmark.plain;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+@Path("/hello")
+@Produces(MediaType.TEXT_PLAIN)
+public class PlainResource {
+    @GET
+    public String get() {
+        return "hello";
+    }
+}
@@ -0,0 +1,26 @@
+package com.hubspot.dropwizard.guice.benchmark.scoped;
+
+import com.google.inject.Inject;
+import com.google.inject.servlet.RequestScoped;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Built by Guice in the request scope set up by GuiceFilter, once for every request.
+ */
+@RequestScoped
+@Path("/hello")
+@Produces(MediaType.TEXT_PLAIN)
+public class RequestScopedResource {
+    @Inject
+    public RequestScopedResource() {
+    }
+
+    @GET
+    public String get() {
+        return "hello";
+    }
+}
@@ -0,0 +1,26 @@
+package com.hubspot.dropwizard.guice.benchmark.singleton;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Built once by Guice.  Without an injection point jersey-guice would leave it to Jersey.
+ */
+@Singleton
+@Path("/hello")
+@Produces(MediaType.TEXT_PLAIN)
+public class SingletonResource {
+    @Inject
+    public SingletonResource() {
+    }
+
+    @GET
+    public String get() {
+        return "hello";
+    }
+}